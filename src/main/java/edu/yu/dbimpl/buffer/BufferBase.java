@@ -46,11 +46,19 @@ public abstract class BufferBase {
    * not be flushed to disk (since the disk block represents the current
    * state).
    *
+   * Performance note: the buffer manager maintains, per transaction, the set
+   * of buffers that the transaction has modified.  This method MUST add the
+   * buffer to txnum's set (removing it from the set of the transaction that
+   * previously modified it, if different).  The buffer is removed from the
+   * set whenever it is written to disk.  Concurrent invocations on different
+   * buffers (e.g., by parallel recovery) must be safe.
+   *
    * @param txnum identifies the transaction that modified the Buffer.
    * @param lsn The LSN of the most recent log record, set to a negative number
    * to indicate that the client didn't generate a log record when modifying
    * the Buffer.
    * @throws IllegalArgumentException if txnum is negative
+   * @see BufferMgrBase#flushAll
    */
   public abstract void setModified(int txnum, int lsn);
 
@@ -20,6 +20,57 @@ package edu.yu.dbimpl.buffer;
  * Design note: it is recommended, but not required, for the buffer manager to
  * delegate all read/write function of its files to the file manager.
  *
+ * Block lookup: pin() MUST determine whether the block is already resident
+ * in O(1) expected time, regardless of the number of buffers (i.e., NOT by a
+ * scan over the pool).  The buffer manager maintains a concurrent map from
+ * each resident block to its buffer, keyed by BlockIdBase.packedKey() of the
+ * block's FileMgrBase.fileId() and block number, so that lookups don't
+ * allocate.  The map is updated atomically with respect to lookups whenever a
+ * buffer is reassigned to another block (the evicted block's entry is
+ * removed, and the new block's entry added).
+ *
+ * Partitioning: the buffer manager MUST access the DBConfiguration singleton
+ * to determine bufferPartitions().  The pool is divided into that many shards
+ * (of as equal a size as possible, and no more shards than buffers), and a
+ * block is assigned to the shard selected by hashing its packed key.  Each
+ * shard has its own latch, eviction-policy state, and free list, so that
+ * pin/unpin of blocks in different shards don't contend.  If the block's
+ * shard has no unpinned buffer, pin() steals a victim from another shard
+ * before waiting; it only blocks (and can only time out) if no shard has an
+ * unpinned buffer.  A stolen buffer moves to the block's home shard: it is
+ * removed from the victim shard's eviction-policy state and added to the
+ * home shard's, so that a buffer is always governed by the latch and
+ * eviction state of the shard to which its block hashes (shard sizes
+ * therefore vary over time).  The two shard latches are acquired in shard
+ * index order, to avoid deadlock.  available() returns the total over all
+ * shards, and flushAll(txnum) flushes the transaction's buffers in every
+ * shard.
+ *
+ * Background writer: the buffer manager MUST access the DBConfiguration
+ * singleton to determine bgWriterCleanPercent().  If the value is positive, a
+ * background (daemon) thread writes modified unpinned buffers to disk,
+ * preferring those that the eviction policy will select soonest, until at
+ * least that percentage of the unpinned buffers are clean, so that pin()
+ * rarely has to write a dirty victim before reading the new block.  Before
+ * writing a buffer, the writer MUST invoke LogMgrBase.flush() with the LSN of
+ * the buffer's most recent log record (write-ahead logging).  The writer never
+ * writes a pinned buffer, and writes no more than
+ * bgWriterMaxWritesPerSecond() blocks per second so as not to saturate the
+ * disk.  A buffer written by the writer is no longer modified, and so is not
+ * written again by flushAll() unless it is modified again.
+ *
+ * Read-ahead: the buffer manager MUST access the DBConfiguration singleton to
+ * determine prefetchMaxBlocks().  If the value is positive, the buffer manager
+ * tracks, per file, whether successive pins are to consecutive blocks (in
+ * either ascending or descending order).  Once a sequential pattern is
+ * detected, it asynchronously reads the next blocks in that direction into
+ * unpinned buffers, starting with a small window that grows while prefetched
+ * blocks are subsequently pinned, and shrinks when they are evicted unused.
+ * The window never exceeds prefetchMaxBlocks(), nor the number of available
+ * buffers, so read-ahead can't evict pages that clients are using.  A
+ * prefetched buffer is not pinned, and read-ahead doesn't change the value
+ * returned by available().
+ *
  * @author Avraham Leff
  */
 
@@ -31,8 +82,28 @@ public abstract class BufferMgrBase {
 
   /** Defines the set of available eviction policies used to select which
    * unpinned buffer should be used to store a disk block (see lecture for details)
+   *
+   * The following policies are "scan resistant": a single large scan can't
+   * flush frequently used pages (e.g., index and catalog pages) from the
+   * pool.
+   *
+   * LRU_K: evicts the unpinned buffer whose K'th most recent pin (K=2) is
+   * the oldest; buffers pinned fewer than K times are evicted first, in LRU
+   * order of their most recent pin.
+   *
+   * TWO_Q: a block pinned for the first time enters a FIFO probationary
+   * queue (A1in, about a quarter of the pool); blocks evicted from it are
+   * remembered (without their pages) in a ghost queue (A1out).  A block that
+   * is pinned again while in A1out is promoted to the main LRU queue (Am).
+   *
+   * ARC: maintains recency (T1) and frequency (T2) LRU lists together with
+   * their ghost lists (B1, B2), adaptively shifting the target size of T1
+   * towards whichever ghost list is receiving hits.
+   *
+   * For all of the above, only unpinned buffers are eligible for eviction,
+   * and ghost entries hold no pages.
    */
-  public enum EvictionPolicy { NAIVE, CLOCK
+  public enum EvictionPolicy { NAIVE, CLOCK, LRU_K, TWO_Q, ARC
   };
   
   /** Creates a buffer manager having the specified number of buffer slots, and
@@ -87,9 +158,21 @@ public abstract class BufferMgrBase {
    * transaction.  Any association between the transaction and its buffers is
    * removed.
    *
+   * Performance note: the method MUST NOT examine every buffer in the pool.
+   * It only visits the transaction's set of modified buffers (see
+   * BufferBase.setModified), so that its cost is proportional to the number
+   * of buffers that the transaction modified, not to the pool size.  Those
+   * buffers are sorted by file name and block number, and written with a
+   * single invocation of FileMgrBase.writeBlocks so that adjacent blocks are
+   * flushed with a single disk access.  Before invoking writeBlocks, the
+   * method MUST invoke LogMgrBase.flush() with the largest LSN of those
+   * buffers' most recent log records (write-ahead logging), so that no page
+   * reaches disk before the log records that describe its modifications.
+   *
    * @param txnum the transaction's id number
    * @throws IllegalArgumentException if txnum is negative
    * @see BufferBase.setModified
+   * @see FileMgrBase#writeBlocks
    */
   public abstract void flushAll(int txnum);
    
@@ -119,6 +202,29 @@ public abstract class BufferMgrBase {
    */
   public abstract BufferBase pin(BlockIdBase blk);
 
+  /** Returns the number of blocks that were read ahead (i.e., the number of
+   * read-aheads issued).  The read-ahead hit rate is prefetchHits() divided
+   * by this value.
+   *
+   * @return the number of read-aheads since the buffer manager was created
+   */
+  public abstract long prefetchReads();
+
+  /** Returns the number of pins that were satisfied by a block that was
+   * read ahead (and not yet pinned since).
+   *
+   * @return the number of read-ahead hits since the buffer manager was created
+   */
+  public abstract long prefetchHits();
+
+  /** Returns the number of read-ahead blocks whose buffers were reassigned to
+   * another block before ever being pinned.
+   *
+   * @return the number of wasted read-aheads since the buffer manager was
+   * created
+   */
+  public abstract long prefetchWasted();
+
   /** Returns the EvictionPolicy used by the buffer manager.
    */
   public abstract EvictionPolicy getEvictionPolicy();
@@ -24,6 +24,7 @@ package edu.yu.dbimpl.config;
  */
 
 import java.util.Properties;
+import edu.yu.dbimpl.file.FileMgrBase;
 
 public enum DBConfiguration {
 
@@ -64,18 +65,7 @@ public enum DBConfiguration {
    * the other
    */
   public synchronized boolean isDBStartup() {
-      final String value = assertPropertyExists(DB_STARTUP);
-      // I don't like Boolean.parseBoolean semantics
-      if (value.equals("true")) {
-        return true;
-      }
-      else if (value.equals("false")) {
-        return false;
-      }
-      else {
-        throw new IllegalArgumentException
-          ("Value can't be converted to boolean: "+value);
-      }
+      return booleanValue(assertPropertyExists(DB_STARTUP));
     }
 
   /** Returns a positive integer representing the number of buckets used in the
@@ -83,28 +73,244 @@ public enum DBConfiguration {
    *
    */
   public synchronized int nStaticHashBuckets() {
-      final String value = properties.getProperty(N_STATIC_HASH_BUCKETS);
+      return intProperty(N_STATIC_HASH_BUCKETS, 100, 2);
+    }
+
+  /** Returns the storage mode that the FileMgr must use for database files.
+   * By default returns FileMgrBase.StorageMode.FILE.
+   *
+   * @see FileMgrBase.StorageMode
+   */
+  public synchronized FileMgrBase.StorageMode storageMode() {
+      final String value = properties.getProperty(STORAGE_MODE);
       if (null == value) {
-        return 100;
+        return FileMgrBase.StorageMode.FILE;
       }
-      
-      int retval = -1;
+
       try {
-        retval = Integer.valueOf(value);
+        return FileMgrBase.StorageMode.valueOf(value);
       }
       catch (Exception e) {
         throw new IllegalArgumentException
-          ("Value can't be converted to integer: "+value);
+          ("Value can't be converted to a storage mode: "+value);
       }
+    }
+
+  /** Returns a positive integer representing the number of blocks covered by
+   * a single memory-mapped segment when the FileMgr uses
+   * StorageMode.MMAP.  By default returns 1024.
+   *
+   * @see FileMgrBase.StorageMode#MMAP
+   */
+  public synchronized int mmapSegmentBlocks() {
+      return intProperty(MMAP_SEGMENT_BLOCKS, 1024, 1);
+    }
+
+  /** Returns true iff Pages created via PageBase(int) must store their
+   * contents off-heap (e.g., in a direct ByteBuffer) rather than in a heap
+   * byte[].  By default returns false.
+   *
+   * @see edu.yu.dbimpl.file.PageBase#PageBase(int)
+   */
+  public synchronized boolean useDirectPages() {
+      return booleanProperty(DIRECT_PAGES, false);
+    }
+
+  /** Returns a positive integer representing the maximum number of database
+   * files that the FileMgr may hold open concurrently.  By default returns
+   * 64.
+   *
+   * @see FileMgrBase#channelCacheEvictions
+   */
+  public synchronized int maxOpenFiles() {
+      return intProperty(MAX_OPEN_FILES, 64, 1);
+    }
+
+  /** Returns a positive integer representing the number of blocks by which
+   * the FileMgr physically grows a file when an append() needs more space.
+   * By default returns 1 (i.e., no preallocation).
+   *
+   * @see FileMgrBase#append
+   */
+  public synchronized int extentBlocks() {
+      return intProperty(EXTENT_BLOCKS, 1, 1);
+    }
+
+  /** Returns a non-negative integer representing the maximum number of
+   * blocks that may be read ahead of a sequential scan of a file.  A value of
+   * 0 disables read-ahead.  By default returns 0.
+   *
+   * @see edu.yu.dbimpl.buffer.BufferMgrBase#pin
+   */
+  public synchronized int prefetchMaxBlocks() {
+      return intProperty(PREFETCH_MAX_BLOCKS, 0, 0);
+    }
+
+  /** Returns a non-negative integer representing the maximum number of
+   * microseconds that a LogMgr.flush() invocation may wait for concurrent
+   * committers to join its group commit.  A value of 0 disables group
+   * commit.  By default returns 0.
+   *
+   * @see edu.yu.dbimpl.log.LogMgrBase#flush
+   */
+  public synchronized int groupCommitMaxWaitMicros() {
+      return intProperty(GROUP_COMMIT_MAX_WAIT_MICROS, 0, 0);
+    }
+
+  /** Returns a positive integer representing the number of in-memory pages
+   * that the LogMgr uses to buffer the tail of the log.  A value of 1 means
+   * that appends write a full page inline; a larger value enables a
+   * background flusher.  By default returns 1.
+   *
+   * @see edu.yu.dbimpl.log.LogMgrBase#append
+   */
+  public synchronized int logTailPages() {
+      return intProperty(LOG_TAIL_PAGES, 1, 1);
+    }
+
+  /** Returns a non-negative integer representing the number of blocks in a
+   * single log segment file.  A value of 0 means that the log is stored in a
+   * single, unsegmented, file.  By default returns 0.
+   *
+   * @see edu.yu.dbimpl.log.LogMgrBase#truncate
+   */
+  public synchronized int logSegmentBlocks() {
+      return intProperty(LOG_SEGMENT_BLOCKS, 0, 0);
+    }
+
+  /** Returns true iff transactions commit asynchronously by default: i.e.,
+   * commit() returns without waiting for the commit record to be on disk
+   * (but still waits for the tx's modified buffers, and their log records, to
+   * be flushed).  By default returns false.  Asynchronous commit requires a
+   * positive logFlushIntervalMillis().
+   *
+   * @see edu.yu.dbimpl.tx.TxBase#commit
+   * @see #logFlushIntervalMillis
+   */
+  public synchronized boolean isAsyncCommit() {
+      return booleanProperty(ASYNC_COMMIT, false);
+    }
 
-      if (retval <= 1) {
+  /** Returns a non-negative integer representing the maximum number of
+   * milliseconds that an appended log record may remain only in main-memory:
+   * i.e., the bound on how much committed work an asynchronous commit can
+   * lose in a crash.  A value of 0 disables the LogMgr's background flushing
+   * (and therefore asynchronous commit).  By default returns 0.
+   *
+   * @see edu.yu.dbimpl.log.LogMgrBase#flush
+   */
+  public synchronized int logFlushIntervalMillis() {
+      return intProperty(LOG_FLUSH_INTERVAL_MILLIS, 0, 0);
+    }
+
+  /** Returns a positive integer representing the number of threads that the
+   * recovery manager may use to undo log records in parallel.  By default
+   * returns 1.
+   *
+   * @see edu.yu.dbimpl.tx.recovery.RecoveryMgrBase#recover
+   */
+  public synchronized int recoveryThreads() {
+      return intProperty(RECOVERY_THREADS, 1, 1);
+    }
+
+  /** Returns true iff the LogMgr must read log segments through
+   * FileMgrBase.mapReadOnly (a memory mapping, except in the MEMORY storage
+   * mode) rather than into pages.  By default returns false.
+   *
+   * @see edu.yu.dbimpl.log.LogMgrBase#viewIterator
+   * @see edu.yu.dbimpl.log.LogMgrBase#forwardViewIterator
+   */
+  public synchronized boolean isLogMmapReads() {
+      return booleanProperty(LOG_MMAP_READS, false);
+    }
+
+  /** Returns a positive integer representing the number of partitions
+   * ("shards") into which the buffer manager divides its buffer pool.  By
+   * default returns 1.
+   *
+   * @see edu.yu.dbimpl.buffer.BufferMgrBase
+   */
+  public synchronized int bufferPartitions() {
+      return intProperty(BUFFER_PARTITIONS, 1, 1);
+    }
+
+  /** Returns an integer between 0 and 100 representing the percentage of
+   * unpinned buffers that the buffer manager's background writer tries to
+   * keep clean.  A value of 0 disables the background writer.  By default
+   * returns 0.
+   *
+   * @see edu.yu.dbimpl.buffer.BufferMgrBase
+   */
+  public synchronized int bgWriterCleanPercent() {
+      final int retval = intProperty(BG_WRITER_CLEAN_PERCENT, 0, 0);
+      if (retval > 100) {
         throw new IllegalArgumentException
-          ("Value can't be converted to positive integer: "+value);
+          ("Value can't exceed 100: "+retval);
       }
 
-      return retval;      
+      return retval;
     }
-  
+
+  /** Returns a positive integer representing the maximum number of blocks
+   * that the background writer may write per second.  By default returns
+   * 100.
+   *
+   * @see #bgWriterCleanPercent
+   */
+  public synchronized int bgWriterMaxWritesPerSecond() {
+      return intProperty(BG_WRITER_MAX_WRITES_PER_SECOND, 100, 1);
+    }
+
+  private boolean booleanProperty(final String property,
+                                  final boolean defaultValue)
+  {
+    final String value = properties.getProperty(property);
+    if (null == value) {
+      return defaultValue;
+    }
+
+    return booleanValue(value);
+  }
+
+  private boolean booleanValue(final String value) {
+    // I don't like Boolean.parseBoolean semantics
+    if (value.equals("true")) {
+      return true;
+    }
+    else if (value.equals("false")) {
+      return false;
+    }
+    else {
+      throw new IllegalArgumentException
+        ("Value can't be converted to boolean: "+value);
+    }
+  }
+
+  private int intProperty(final String property, final int defaultValue,
+                          final int minValue)
+  {
+    final String value = properties.getProperty(property);
+    if (null == value) {
+      return defaultValue;
+    }
+
+    int retval = -1;
+    try {
+      retval = Integer.valueOf(value);
+    }
+    catch (Exception e) {
+      throw new IllegalArgumentException
+        ("Value can't be converted to integer: "+value);
+    }
+
+    if (retval < minValue) {
+      throw new IllegalArgumentException
+        ("Value must be at least "+minValue+": "+value);
+    }
+
+    return retval;
+  }
+
   private String assertPropertyExists(final String property) {
     final String value = properties.getProperty(property);
     if (value == null) {
@@ -116,5 +322,25 @@ public enum DBConfiguration {
 
   public final static String DB_STARTUP = "db.startup";
   public final static String N_STATIC_HASH_BUCKETS = "n.static.hash.buckets";
+  public final static String STORAGE_MODE = "file.storage.mode";
+  public final static String MMAP_SEGMENT_BLOCKS = "file.mmap.segment.blocks";
+  public final static String DIRECT_PAGES = "page.direct";
+  public final static String MAX_OPEN_FILES = "file.max.open.files";
+  public final static String EXTENT_BLOCKS = "file.extent.blocks";
+  public final static String PREFETCH_MAX_BLOCKS = "prefetch.max.blocks";
+  public final static String GROUP_COMMIT_MAX_WAIT_MICROS =
+    "log.group.commit.max.wait.micros";
+  public final static String LOG_TAIL_PAGES = "log.tail.pages";
+  public final static String LOG_SEGMENT_BLOCKS = "log.segment.blocks";
+  public final static String ASYNC_COMMIT = "tx.async.commit";
+  public final static String LOG_FLUSH_INTERVAL_MILLIS =
+    "log.flush.interval.millis";
+  public final static String RECOVERY_THREADS = "recovery.threads";
+  public final static String LOG_MMAP_READS = "log.mmap.reads";
+  public final static String BUFFER_PARTITIONS = "buffer.partitions";
+  public final static String BG_WRITER_CLEAN_PERCENT =
+    "buffer.bgwriter.clean.percent";
+  public final static String BG_WRITER_MAX_WRITES_PER_SECOND =
+    "buffer.bgwriter.max.writes.per.second";
   private Properties properties;
 } // class
@@ -29,4 +29,17 @@ public abstract class BlockIdBase {
   abstract public String fileName();
 
   abstract public int number();
+
+  /** Packs a (file id, block number) pair into a single long, e.g. for use as
+   * an allocation-free hash key identifying a block.  Distinct pairs map to
+   * distinct keys.
+   *
+   * @param fileId a file id, as returned by FileMgrBase.fileId()
+   * @param blknum a block number
+   * @return the packed key
+   * @see FileMgrBase#fileId
+   */
+  public static long packedKey(final int fileId, final int blknum) {
+    return (((long) fileId) << 32) | (blknum & 0xFFFFFFFFL);
+  }
 }
@@ -15,8 +15,11 @@ package edu.yu.dbimpl.file;
  *
  * The FileMgr always reads/writes/appends a block-sized number of bytes
  * from/to a file.  The FileMgr ensures that all file operations take place at
- * a block boundary, and ensures that each call to read/write/append incurs
- * exactly one disk access per call.
+ * a block boundary.  In the FILE and DIRECT storage modes, the FileMgr
+ * ensures that each call to read/write/append incurs exactly one disk access
+ * per call, and that the batch APIs (readBlocks/writeBlocks) incur one disk
+ * access per run of adjacent blocks.  The other storage modes replace disk
+ * accesses as described in the StorageMode Javadoc.
  *
  * The FileMgr class handles the actual interaction with the OS's file
  * system. Its constructor takes two arguments: a File specifying the root
@@ -41,15 +44,100 @@ package edu.yu.dbimpl.file;
  * (conceptually) created during system startup, and in practice by a single
  * invocation of the constructor.
  *
+ * Storage modes: the FileMgr MUST access the DBConfiguration singleton to
+ * determine the StorageMode used to access database files, and delegates
+ * storage to the StorageBackendBase implementation for that mode (routing
+ * registered log files as specified by StorageBackendBase).  Whatever the
+ * mode, the block-at-a-time semantics of read/write/append, and the value
+ * returned by length(), are identical.
+ *
+ * Open files: every table and index is stored in its own file, so the FileMgr
+ * keeps a cache of open channels keyed by file name.  The FileMgr holds at
+ * most DBConfiguration.maxOpenFiles() files open, except while every cached
+ * channel is in use.  When the cache is full, the least-recently-used channel
+ * that isn't in use is closed to make room; a channel that is in use by a
+ * concurrent read/write/append/length invocation is never closed (the
+ * implementation must reference-count channels).  All FileMgr methods MUST
+ * be thread-safe.
+ *
  * Relevant lectures: intro-project and file_module
  *
  * @author Avraham Leff
  */
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.List;
 
 public abstract class FileMgrBase {
 
+  /** Defines the set of available modes by which the FileMgr accesses the
+   * files in the dbDirectory.
+   *
+   * FILE: each read/write/append is a positioned FileChannel (or equivalent)
+   * transfer between the file and the Page.
+   *
+   * MMAP: each database file is mapped into memory with FileChannel.map in
+   * segments of DBConfiguration.mmapSegmentBlocks() blocks.  read() is a
+   * memory copy from the mapping into the Page.  A Page is always a separate
+   * copy, never a view over the mapping: otherwise a modification would reach
+   * the mapping (which the OS may write back at any time) before its log
+   * record was flushed, violating write-ahead logging.  Data thus reaches the
+   * mapping only through an explicit write(), which copies the Page into the
+   * mapping and then invokes MappedByteBuffer.force(index, length) on the
+   * written range before returning, so that, as in FILE mode, a block is
+   * durable once write() returns (recovery has no redo pass, so a committed
+   * transaction's pages must be on disk when commit completes).  writeBlocks
+   * forces each run of adjacent blocks with a single force(index, length).
+   * append() grows the mapping by a further segment when the new block lies
+   * beyond the current mapping.  length() continues to report the number of
+   * blocks that have been appended, NOT the size of the mapping.  Log files
+   * (see registerLogFile) are never mapped, and are accessed exactly as in
+   * FILE mode.
+   *
+   * COMPRESSED: write() compresses the Page's bytes with a fast, pure-Java
+   * codec (fixed-width string padding compresses well) before persisting
+   * them, and read() decompresses them into the Page, so that a Page always
+   * holds exactly blockSize() uncompressed bytes.  Because compressed blocks
+   * vary in size, the FileMgr persists, per file, a map from block number to
+   * the offset and length of the block's compressed bytes.  A block is never
+   * overwritten in place: write() first writes the compressed bytes to free
+   * space in the file, then invokes FileChannel.force (or an equivalent
+   * durability barrier) so that those bytes are on disk, and only then
+   * persists the block's new map entry with a single atomic update (e.g., a
+   * one-sector write of a fixed-size entry), itself followed by a force.
+   * Without the first barrier, the OS or device could persist the map entry
+   * before the data it points at.  A crash thus leaves the map pointing at
+   * either the old or the new copy, never at a partial one.  writeBlocks
+   * issues one barrier for all of the data of its run, and one for its map
+   * entries.  The space occupied by the old copy is returned to the file's
+   * free space only after the new entry is persisted.  Free space isn't
+   * persisted: on startup it is recomputed as the space not referenced by the
+   * map.  length() is unaffected by compression.  Log files (see
+   * registerLogFile) are NOT compressed: they are accessed exactly as in FILE
+   * mode, so that their bytes can be mapped (see mapReadOnly).
+   *
+   * MEMORY: blocks are held in main-memory and the dbDirectory is never
+   * accessed (no file I/O, no fsync), intended for tests, benchmarks, and
+   * scratch databases.  The block store is shared by all FileMgr instances
+   * in the JVM that use the same dbDirectory, so that a non-startup
+   * instantiation sees the blocks written by its predecessor; its contents
+   * are lost when the JVM exits.
+   *
+   * DIRECT: files are opened with com.sun.nio.file.ExtendedOpenOption.DIRECT
+   * so that blocks bypass the OS page cache (the buffer pool already caches
+   * them).  Direct I/O requires that transfers be aligned to the file
+   * system's block size: the blockSize supplied to the constructor must be a
+   * multiple of FileStore.getBlockSize() for the dbDirectory's file store,
+   * and transfers must use aligned direct buffers (see
+   * ByteBuffer.alignedSlice), copying through such a buffer if the Page isn't
+   * suitably aligned.  Log files (see registerLogFile) are NOT opened with
+   * DIRECT: they are accessed exactly as in FILE mode, so the LogMgr's
+   * durability behavior is unchanged.
+   */
+  public enum StorageMode { FILE, MMAP, COMPRESSED, MEMORY, DIRECT
+  };
+
   /** The file manager MUST access the DBConfiguration singleton to determine
    * if it is required to manage a brand-new database or to use an existing
    * database.  If the former, the file manager is responsible for
@@ -64,41 +152,192 @@ public abstract class FileMgrBase {
    * @param blockSize size of blocks to be used in this database.
    * @throws IllegalStateException if DBConfiguration cannot supply startup
    * information.
+   * @throws IllegalArgumentException if the storage mode is
+   * StorageMode.DIRECT and blockSize isn't a multiple of the file system's
+   * alignment.
    */
   public FileMgrBase(File dbDirectory, int blocksize) {
     // fill me in in your implementation class!
   }
 
-  /** Reads the specified data from disk into main-memory
+  /** Reads the specified data from disk into main-memory.  If the Page's
+   * bytes are stored off-heap, the implementation must transfer them directly
+   * between the file and the Page, without an intermediate heap copy.
    *
    * @param blk the disk location
    * @param p the main-memory location
    */
   public abstract void read(BlockIdBase blk, PageBase p);
 
-  /** Writes the specified data from main-memory to disk
+  /** Writes the specified data from main-memory to disk.  If the Page's
+   * bytes are stored off-heap, the implementation must transfer them directly
+   * between the Page and the file, without an intermediate heap copy.
    *
    * @param blk the disk location
    * @param p the main-memory location
    */
   public abstract void write(BlockIdBase blk, PageBase p);
 
+  /** Reads each of the specified blocks from disk into the corresponding
+   * Page.  The semantics are those of invoking read(blks.get(i),
+   * pages.get(i)) for each i, except that the transfers are batched.  In
+   * the FILE and DIRECT storage modes, the implementation MUST coalesce every
+   * run of adjacent blocks in the same file into a single scattering disk
+   * access (e.g., FileChannel.read(ByteBuffer[])).  In the MMAP and MEMORY
+   * modes each block is a memory copy, so there is nothing to coalesce.  In
+   * the COMPRESSED mode, blocks whose compressed bytes are adjacent in the
+   * file are read with a single disk access, and other blocks with one disk
+   * access each.
+   *
+   * @param blks the disk locations, sorted by file name and then by block
+   * number, cannot contain duplicates.
+   * @param pages the main-memory locations, pages.get(i) corresponds to
+   * blks.get(i).
+   * @throws IllegalArgumentException if either list is null, if the lists
+   * differ in size, or if blks isn't sorted as specified.
+   * @see #read
+   */
+  public abstract void
+    readBlocks(List<BlockIdBase> blks, List<PageBase> pages);
+
+  /** Writes each of the specified Pages to the corresponding disk block.  The
+   * semantics are those of invoking write(blks.get(i), pages.get(i)) for each
+   * i, except that the transfers are batched.  In the FILE and DIRECT
+   * storage modes, the implementation MUST coalesce every run of adjacent
+   * blocks in the same file into a single gathering disk access (e.g.,
+   * FileChannel.write(ByteBuffer[])).  In the MMAP mode each block is a
+   * memory copy, and each run of adjacent blocks is forced with a single
+   * MappedByteBuffer.force(index, length).  In the MEMORY mode each block is
+   * a memory copy, so there is nothing to coalesce.  In the COMPRESSED mode,
+   * the compressed blocks of a run are written to adjacent free space with a
+   * single disk access where possible.
+   *
+   * @param blks the disk locations, sorted by file name and then by block
+   * number, cannot contain duplicates.
+   * @param pages the main-memory locations, pages.get(i) corresponds to
+   * blks.get(i).
+   * @throws IllegalArgumentException if either list is null, if the lists
+   * differ in size, or if blks isn't sorted as specified.
+   * @see #write
+   */
+  public abstract void
+    writeBlocks(List<BlockIdBase> blks, List<PageBase> pages);
+
   /** Allocates a block at the end of the specified file.  The contents of the
    * new block is implementation dependent, but a block of the correct size
    * MUST be written to disk after the call completes.
    *
+   * The FileMgr MUST access the DBConfiguration singleton to determine the
+   * extent size.  When the file has no preallocated space for the new block,
+   * the implementation grows the file by DBConfiguration.extentBlocks()
+   * blocks in a single operation; subsequent appends consume the
+   * preallocated blocks without growing the file.
+   *
    * @param filename specifies the file to which the block should be appended
    */
   public abstract BlockIdBase append(String filename);
 
+  /** Deletes the specified file (and any meta-data that the FileMgr
+   * maintains for it).  A subsequent reference to the file name creates a
+   * new empty file, per the "on demand" design note.  If the file doesn't
+   * exist, the method is a no-op.
+   *
+   * @param filename specifies the file
+   */
+  public abstract void delete(String filename);
+
   /** Return the number of blocks of the specified file.  If the File has not
    * yet been created, returns 0.
    *
+   * The value is the LOGICAL number of blocks (i.e., the number of blocks
+   * that have been appended), excluding any blocks preallocated by append().
+   * The implementation must persist the logical length such that it is
+   * returned unchanged when an existing database is reinstantiated.
+   *
    * @param filename specifies the file
    * @return the number of blocks of that file
    */
   public abstract int length(String filename);
 
+  /** Returns the number of times that an API invocation found the file's
+   * channel already open in the channel cache.
+   *
+   * @return the number of channel cache hits since the FileMgr was created
+   */
+  public abstract long channelCacheHits();
+
+  /** Returns the number of times that an API invocation had to open the
+   * file's channel because it wasn't in the channel cache.
+   *
+   * @return the number of channel cache misses since the FileMgr was created
+   */
+  public abstract long channelCacheMisses();
+
+  /** Returns the number of channels closed to keep the channel cache within
+   * DBConfiguration.maxOpenFiles().
+   *
+   * @return the number of channel cache evictions since the FileMgr was
+   * created
+   */
+  public abstract long channelCacheEvictions();
+
+  /** Informs the FileMgr that the specified file holds log records (rather
+   * than blocks that are read through the buffer manager).  Storage modes
+   * whose Javadoc says so access log files exactly as in FILE mode, so that
+   * flushing the log keeps its FILE mode durability behavior.  In every mode,
+   * registration enables mapReadOnly for the file.  Registration is not
+   * persisted: the LogMgr MUST register each log file (e.g., each log
+   * segment) before it first accesses that file in a given FileMgr instance.
+   * Registering a file more than once is a no-op.
+   *
+   * @param filename specifies the log file
+   * @see StorageMode
+   */
+  public abstract void registerLogFile(String filename);
+
+  /** Returns a read-only ByteBuffer over the current contents of the
+   * specified log file: the buffer's capacity is length(filename) *
+   * blockSize(), and block i occupies the bytes starting at i * blockSize().
+   * Blocks appended after the invocation aren't covered, so clients must
+   * invoke the method again to see them.  The buffer's contents are
+   * undefined after the file is deleted.
+   *
+   * Because log files are accessed as in FILE mode whatever the storage mode
+   * (see StorageMode), the FILE, MMAP, COMPRESSED, and DIRECT modes return a
+   * read-only mapping of the file (FileChannel.map with
+   * FileChannel.MapMode.READ_ONLY), which reflects subsequent writes to the
+   * mapped blocks.  The MEMORY mode, in which there is no file to map,
+   * returns a read-only view over the blocks held in main-memory (copying
+   * them into a single buffer if they aren't stored contiguously).
+   *
+   * @param filename specifies the log file
+   * @return a read-only buffer over the file's blocks
+   * @throws IllegalArgumentException if filename hasn't been registered with
+   * registerLogFile.
+   * @see edu.yu.dbimpl.config.DBConfiguration#isLogMmapReads
+   */
+  public abstract ByteBuffer mapReadOnly(String filename);
+
+  /** Returns a small non-negative integer that uniquely identifies the
+   * specified file name for the lifetime of this FileMgr instance: repeated
+   * invocations with the same name return the same id, and distinct names are
+   * assigned distinct ids.  Ids need not be persisted.  The lookup of a
+   * previously assigned id must not allocate memory, and the method must be
+   * thread-safe.
+   *
+   * @param filename specifies the file, need not exist
+   * @return the file's id
+   * @see BlockIdBase#packedKey
+   */
+  public abstract int fileId(String filename);
+
+  /** Returns the StorageMode used by the file manager.
+   *
+   * @return the storage mode
+   * @see StorageBackendBase
+   */
+  public abstract StorageMode getStorageMode();
+
   /** Returns the value of the blockSize supplied to the constructor (and
    * conceptually a constant value used by all layers of the PetiteDB system).
    *
@@ -35,6 +35,7 @@ package edu.yu.dbimpl.file;
  * @author Avraham Leff
  */
 
+import java.nio.ByteBuffer;
 import java.nio.charset.*;
 
 public abstract class PageBase {
@@ -61,8 +62,7 @@ public abstract class PageBase {
    * variable-length types such as String.
    */
   public static int maxLength(int strlen) {
-    float bytesPerChar = CHARSET.newEncoder().maxBytesPerChar();
-    return Integer.BYTES + (strlen * (int)bytesPerChar);
+    return Integer.BYTES + (strlen * bytesPerChar());
   }
 
   /** Returns the logical length of a string
@@ -74,10 +74,40 @@ public abstract class PageBase {
       throw new IllegalArgumentException("null string");
     }
 
-    float bytesPerChar = CHARSET.newEncoder().maxBytesPerChar();
-    return s.length() * ((int) bytesPerChar);
+    return s.length() * bytesPerChar();
   }
 
+  /** Returns the max number of bytes per character of the current CHARSET.
+   * Creating an encoder per invocation is expensive (and these methods are
+   * invoked for every string field access), so the value is cached together
+   * with the charset for which it was computed, and recomputed only if
+   * CHARSET is reassigned.
+   */
+  private static int bytesPerChar() {
+    CharsetConstants constants = charsetConstants;
+    if (constants.charset != CHARSET) {
+      constants = new CharsetConstants(CHARSET);
+      charsetConstants = constants;
+    }
+
+    return constants.bytesPerChar;
+  }
+
+  /** Immutable so that a racing reader sees a consistent charset/value pair.
+   */
+  private static final class CharsetConstants {
+    private CharsetConstants(final Charset charset) {
+      this.charset = charset;
+      this.bytesPerChar = (int) charset.newEncoder().maxBytesPerChar();
+    }
+
+    private final Charset charset;
+    private final int bytesPerChar;
+  }
+
+  private static volatile CharsetConstants charsetConstants =
+    new CharsetConstants(CHARSET);
+
   /** Use this constructor when a Page's bytes are supplied implicitly by the
    * Page implementation.
    *
@@ -86,10 +116,35 @@ public abstract class PageBase {
    *
    * Note: it's the client's responsibility to ensure that the blocksize
    * parameter is valid!
+   *
+   * The implementation MUST access the DBConfiguration singleton: if
+   * useDirectPages() is true, the Page's bytes must be allocated off-heap
+   * (e.g., ByteBuffer.allocateDirect) so that a large buffer pool isn't
+   * scanned by the garbage collector, and so that the FileMgr can transfer
+   * the Page to and from disk without an intermediate copy.
    */
   public PageBase(int blocksize) {
     // fill me in in your implementation class!
   }
+
+  /** Use this constructor when a Page's bytes are supplied by the client as a
+   * ByteBuffer: typically a direct buffer carved from a pooled off-heap
+   * region.  The Page uses the buffer's contents from position 0 through its
+   * capacity, and doesn't copy them.  As with the byte[] constructor, changes
+   * made by the Page instance are reflected in the buffer, and the client
+   * must only access the buffer's state through the PageBase API.
+   *
+   * The getter methods must not allocate heap memory for fixed-length types
+   * (ints, doubles, booleans), regardless of whether the buffer is direct.
+   *
+   * @param bb the buffer holding the Page's bytes, cannot be null and cannot
+   * be read-only.
+   * @throws IllegalArgumentException if the buffer doesn't meet the
+   * pre-conditions.
+   */
+  public PageBase(ByteBuffer bb) {
+    // fill me in in your implementation class!
+  }
    
   /** Use this constructor when a Page's bytes are explicitly supplied by the
    * client.  The client is responsible for ensuring that the byte[] has
@@ -157,8 +212,31 @@ public abstract class PageBase {
    */
   public abstract void setBytes(int offset, byte[] b);
    
+  /** Returns the string stored at the specified offset.
+   *
+   * Performance note: when CHARSET encodes every character as a single byte
+   * (as does US_ASCII), getString() and setString() should convert directly
+   * between chars and the Page's bytes, without allocating an intermediate
+   * byte[] or encoder/decoder.
+   */
   public abstract String getString(int offset);
 
+  /** Returns a read-only view of the string stored at the specified offset,
+   * decoded on demand from the Page's bytes, so that clients (e.g.,
+   * predicates) can compare a field value without creating a String.  The
+   * view's length() is the logical length of the stored string.
+   *
+   * The view reflects the Page's bytes at the time of access: its contents
+   * are undefined once the Page has been modified (or reused for another
+   * block).  Clients that need a stable value must invoke toString() or
+   * getString().
+   *
+   * @param offset the position from which the value is read
+   * @return a view of the stored string
+   * @throws IllegalArgumentException per design note above.
+   */
+  public abstract CharSequence getCharSequence(int offset);
+
   /** Writes the string to the specified offset in the block.
    *
    * @param offset the position to which the value will be written
@@ -0,0 +1,121 @@
+package edu.yu.dbimpl.file;
+
+/** Specifies the API by which the FileMgr delegates block storage to a
+ * pluggable backend.
+ *
+ * Students MAY NOT modify this interface in any way.
+ *
+ * The FileMgr is the only client of a storage backend: it selects the backend
+ * that corresponds to DBConfiguration.storageMode(), and delegates each
+ * read/write/readBlocks/writeBlocks/append/length/delete invocation to that
+ * backend.  Managers above the FileMgr (log, buffer, tx, ...) therefore
+ * cannot tell which backend is in use.  Each FileMgrBase.StorageMode
+ * corresponds to exactly one backend implementation, which stores the
+ * database files.
+ *
+ * Log files: the storage modes that access log files exactly as in FILE
+ * mode (MMAP, COMPRESSED, and DIRECT) do so by routing: the FileMgr
+ * remembers the files passed to FileMgrBase.registerLogFile, and delegates
+ * every invocation that references such a file to a second backend, the FILE
+ * mode backend, instead of to the mode's backend.  In the FILE and MEMORY
+ * modes, log files are stored by the mode's backend like any other file.  A
+ * backend therefore never needs to know whether a file holds log records,
+ * and the MMAP, COMPRESSED, and DIRECT backends need not implement
+ * mapReadOnly.
+ *
+ * Construction: every backend implementation MUST provide a public
+ * constructor whose parameters are the dbDirectory and blockSize supplied to
+ * the FileMgrBase constructor, (File dbDirectory, int blockSize), and the
+ * FileMgr creates its backends (at most two) in its own constructor.  The
+ * constructor performs any validation specific to the mode (e.g., the DIRECT
+ * backend's alignment check, throwing IllegalArgumentException), but doesn't
+ * modify persisted state.  A backend is responsible for exactly the storage
+ * semantics that the FileMgrBase Javadoc specifies (block-at-a-time
+ * transfers, "on demand" file creation, logical length); the FileMgr remains
+ * responsible for argument validation and for the DBConfiguration startup
+ * semantics, which it implements by invoking clear() on each of its backends
+ * after constructing them.
+ *
+ * @see FileMgrBase.StorageMode
+ */
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+public interface StorageBackendBase {
+
+  /** Reads the bytes of the specified block into the Page.
+   *
+   * @param blk the block's location
+   * @param p the main-memory location
+   */
+  public void read(BlockIdBase blk, PageBase p);
+
+  /** Persists the Page's bytes as the contents of the specified block.
+   *
+   * @param blk the block's location
+   * @param p the main-memory location
+   */
+  public void write(BlockIdBase blk, PageBase p);
+
+  /** Reads each of the specified blocks into the corresponding Page, with
+   * the per-mode batching semantics specified by FileMgrBase.readBlocks.
+   *
+   * @param blks the blocks' locations, sorted by file name and then by block
+   * number
+   * @param pages the main-memory locations, pages.get(i) corresponds to
+   * blks.get(i)
+   * @see FileMgrBase#readBlocks
+   */
+  public void readBlocks(List<BlockIdBase> blks, List<PageBase> pages);
+
+  /** Persists each of the specified Pages as the contents of the
+   * corresponding block, with the per-mode batching semantics specified by
+   * FileMgrBase.writeBlocks.
+   *
+   * @param blks the blocks' locations, sorted by file name and then by block
+   * number
+   * @param pages the main-memory locations, pages.get(i) corresponds to
+   * blks.get(i)
+   * @see FileMgrBase#writeBlocks
+   */
+  public void writeBlocks(List<BlockIdBase> blks, List<PageBase> pages);
+
+  /** Allocates a block at the end of the specified file.
+   *
+   * @param filename specifies the file to which the block should be appended
+   * @return the block number of the new block
+   */
+  public int append(String filename);
+
+  /** Returns the logical number of blocks of the specified file, 0 if the
+   * file doesn't exist.
+   *
+   * @param filename specifies the file
+   * @return the number of blocks of that file
+   */
+  public int length(String filename);
+
+  /** Discards the specified file, a no-op if the file doesn't exist.
+   *
+   * @param filename specifies the file
+   */
+  public void delete(String filename);
+
+  /** Returns a read-only buffer over the current contents of the specified
+   * file, with the semantics specified by FileMgrBase.mapReadOnly.  Only
+   * invoked for registered log files, so only the FILE and MEMORY backends
+   * need implement it; the other backends throw
+   * UnsupportedOperationException.
+   *
+   * @param filename specifies the file
+   * @return a read-only buffer over the file's blocks
+   * @see FileMgrBase#mapReadOnly
+   */
+  public ByteBuffer mapReadOnly(String filename);
+
+  /** Discards all files held by the backend, leaving it in a "brand-new
+   * database" state.
+   */
+  public void clear();
+} // interface
@@ -38,7 +38,9 @@ package edu.yu.dbimpl.log;
  * @author Avraham Leff
  */
 
+import java.nio.ByteBuffer;
 import java.util.Iterator;
+import java.util.List;
 import edu.yu.dbimpl.file.FileMgrBase;
 
 public abstract class LogMgrBase {
@@ -52,8 +54,21 @@ public abstract class LogMgrBase {
    * before invoking the log manager constructor.  The log manager may
    * therefore rely on the file manager to do "file manager initialization".
    *
+   * The log manager MUST invoke FileMgrBase.registerLogFile for the log file
+   * (for each log segment, if the log is segmented) before it first accesses
+   * that file.
+   *
+   * Log segments: the log manager MUST access the DBConfiguration singleton
+   * to determine logSegmentBlocks().  If the value is positive, the log is
+   * stored as a sequence of segment files, each holding at most that many
+   * blocks, whose names are formed by suffixing logfile with the segment's
+   * (monotonically increasing) sequence number.  Segmentation is invisible to
+   * clients: LSNs increase monotonically across segments and across DBMS
+   * restarts, and the iterator traverses segments transparently.
+   *
    * @param FileMgr the file manager
-   * @param logfile the name of the log file.
+   * @param logfile the name of the log file (or, if the log is segmented, the
+   * prefix of the segment file names).
    */
   public LogMgrBase(FileMgrBase fm, String logfile) {
     // fill me in your implementation class!
@@ -67,11 +82,43 @@ public abstract class LogMgrBase {
    * whether the specified log record has already been written to disk.  If it
    * HAS been written to disk, the method should be a no-op, potentially
    * improving performance by avoiding unnecessary disk-writes.
-   * 
+   *
+   * Group commit: the log manager MUST access the DBConfiguration singleton
+   * to determine groupCommitMaxWaitMicros().  If the value is positive,
+   * concurrent invocations of flush() are batched.  The first thread to find
+   * no write in progress becomes the group's leader: it waits (at most the
+   * configured time) for other threads to join, then writes the log page
+   * once.  All threads whose LSN is covered by that write return without
+   * doing any I/O of their own.  The wait must be adaptive: a leader should
+   * not wait at all when no other flush() is in progress, and should
+   * shorten its wait when recent groups contained a single committer.
+   * Whether or not group commit is enabled, flush() MUST NOT return until
+   * the specified log record is on disk, and must be thread-safe.
+   *
+   * Background flushing: the log manager MUST access the DBConfiguration
+   * singleton to determine logFlushIntervalMillis().  If the value is 0 (the
+   * default), there is no background flushing.  If the value is positive, a
+   * background task ensures that every appended log record is on disk no
+   * later than that many milliseconds after it was appended, even if no
+   * client invokes flush().  Clients (e.g., of an asynchronously committed
+   * transaction) wait for a record to become durable by invoking flush() with
+   * its LSN, which is cheap if the background task has already written it.
+   *
    * @param lsn the LSN of a log record
    */
   public abstract void flush(int lsn);
 
+  /** Returns the "durable LSN" watermark: the greatest LSN whose log record
+   * (together with all log records having smaller LSNs) is known to be on
+   * disk, or -1 if no log record is on disk.  The value never decreases.
+   * When an existing database is reinstantiated, the value is initialized to
+   * the LSN of the latest persisted log record (-1 if the log is empty).
+   *
+   * @return the durable LSN
+   * @see #flush
+   */
+  public abstract int durableLSN();
+
   /** First flushes the log to disk, then return an Iterator over the contents
    * of the persisted log.
    *
@@ -97,10 +144,146 @@ public abstract class LogMgrBase {
    * records in the current block, then move to the previous block and return
    * the last log record from that block.  Lather, rinse, and repeat.
    *
+   * Read-ahead: if DBConfiguration.prefetchMaxBlocks() is positive, the
+   * iterator may asynchronously read the preceding blocks of the log file
+   * (at most that many) into its own pages, so that moving to the previous
+   * block doesn't stall on a disk read.  Log blocks must not be read into the
+   * buffer pool.  Read-ahead activity, summed over all iterators, is reported
+   * by prefetchReads(), prefetchHits(), and prefetchWasted().
+   *
    * @return a LogIterator (typed as an Iterator<byte[]>)
    */
   public abstract Iterator<byte[]> iterator();
 
+  /** Returns an Iterator, with the same (reverse order) semantics as
+   * iterator(), that is positioned such that next() returns the log record
+   * having the specified LSN.  The method first invokes flush(lsn).
+   *
+   * Positioning is done directly, NOT by iterating over the log records that
+   * follow the specified record.  Because LSNs are record counters, an LSN's
+   * position can't be computed, so the log manager MUST persist, in the
+   * header of every log block, the LSN of the first record stored in that
+   * block.  LSNs increase with block number, so the block holding the
+   * specified LSN is found by a binary search over block headers (O(log n)
+   * block reads), after which the iterator walks the records of that block
+   * only.  If the log is segmented, the log manager also maintains an
+   * in-memory table of the first LSN of each retained segment (built on
+   * startup from each segment's first block header, and extended whenever a
+   * segment is created), and binary-searches that table to select the
+   * segment before searching its blocks.
+   *
+   * This enables a client that chains log records (e.g., each record stores
+   * the LSN of the previous record of the same transaction) to visit only the
+   * records on the chain.
+   *
+   * @param lsn the LSN of a log record that was previously appended, and
+   * which hasn't been truncated.
+   * @return a LogIterator (typed as an Iterator<byte[]>)
+   * @throws IllegalArgumentException if the lsn doesn't meet the
+   * pre-conditions.
+   * @see #iterator()
+   */
+  public abstract Iterator<byte[]> iterator(int lsn);
+
+  /** First flushes the log to disk, then returns an Iterator over the log
+   * records whose LSN is greater than or equal to the specified LSN, in
+   * FORWARD order (earliest created to most recently created).  Like
+   * iterator(int), the iterator is positioned directly, and next() first
+   * returns the record having the specified LSN.  hasNext() returns false
+   * once the latest record (as of the iterator's creation) has been returned.
+   * The iterator traverses log segments transparently, and need not be
+   * thread-safe.
+   *
+   * @param lsn the LSN of a log record that was previously appended, and
+   * which hasn't been truncated.
+   * @return an Iterator over the log records in forward order
+   * @throws IllegalArgumentException if the lsn doesn't meet the
+   * pre-conditions.
+   * @see #iterator(int)
+   */
+  public abstract Iterator<byte[]> forwardIterator(int lsn);
+
+  /** Returns an Iterator with the same (reverse order) semantics as
+   * iterator(int), except that each log record is returned as a read-only
+   * ByteBuffer view over a buffer shared by the iterator, rather than as a
+   * newly allocated byte[] copy.  The record's bytes are those between the
+   * view's position and limit.  A view is only valid until the next
+   * invocation of next(): clients that need the bytes afterwards must copy
+   * them.
+   *
+   * The log manager MUST access the DBConfiguration singleton: if
+   * isLogMmapReads() is true, the shared buffer is the one returned by
+   * FileMgrBase.mapReadOnly for the log segment being traversed, so that
+   * iteration doesn't copy log blocks into pages either.  The in-memory log
+   * tail is flushed before the iterator is created, and the buffer is
+   * obtained afterwards, so it covers every record.  The log manager never
+   * accesses log files except through the FileMgr.
+   *
+   * The returned iterator can be repositioned at an earlier record with
+   * LogViewIterator.seek, which searches from the iterator's current block.
+   *
+   * @param lsn the LSN of the first record to return, with the same
+   * pre-conditions as iterator(int).
+   * @return an Iterator over read-only views of the log records
+   * @throws IllegalArgumentException if the lsn doesn't meet the
+   * pre-conditions.
+   * @see #iterator(int)
+   * @see LogViewIterator#seek
+   */
+  public abstract LogViewIterator viewIterator(int lsn);
+
+  /** Returns an Iterator with the same (forward order) semantics as
+   * forwardIterator(int), except that, as with viewIterator(int), each log
+   * record is returned as a read-only ByteBuffer view that is only valid
+   * until the next invocation of next().  If isLogMmapReads() is true, the
+   * views are over the buffer returned by FileMgrBase.mapReadOnly for the log
+   * segment being traversed.
+   *
+   * @param lsn the LSN of the first record to return, with the same
+   * pre-conditions as forwardIterator(int).
+   * @return an Iterator over read-only views of the log records, in forward
+   * order
+   * @throws IllegalArgumentException if the lsn doesn't meet the
+   * pre-conditions.
+   * @see #forwardIterator
+   * @see #viewIterator
+   */
+  public abstract Iterator<ByteBuffer> forwardViewIterator(int lsn);
+
+  /** Informs the log manager that no log record whose LSN is less than the
+   * specified LSN will ever be needed again (typically, because the record at
+   * that LSN is a quiescent checkpoint).  The log manager persists the
+   * truncation point, together with the segment containing it, so that it
+   * survives DBMS restarts, and then deletes (via the file manager) every
+   * segment all of whose records precede the truncation point.  Going
+   * forward, the iterator's traversal ends with the earliest retained record.
+   *
+   * If the log isn't segmented, the method only records the truncation
+   * point.  The method never discards the segment holding the truncation
+   * point, nor any record in the in-memory log tail.
+   *
+   * @param lsn the LSN of the earliest log record that must be retained, must
+   * not exceed the LSN of the latest appended record.
+   * @throws IllegalArgumentException if the lsn doesn't meet the
+   * pre-conditions.
+   * @see edu.yu.dbimpl.tx.recovery.RecoveryMgrBase#recover
+   */
+  public abstract void truncate(int lsn);
+
+  /** Returns the truncation point most recently persisted by truncate(): the
+   * LSN of the earliest retained log record.  Returns 0 (the LSN of the
+   * first record ever appended) if truncate() has never been invoked for the
+   * database, so that the value can always be supplied to
+   * forwardViewIterator() when the log isn't empty.  The value is read from
+   * the persisted truncation point when the database is reinstantiated, so
+   * that recovery can locate the last checkpoint without scanning the log.
+   *
+   * @return the LSN of the earliest retained log record
+   * @see #truncate
+   * @see edu.yu.dbimpl.tx.recovery.RecoveryMgrBase#recover
+   */
+  public abstract int truncationLSN();
+
   /** Appends a log record (as an arbitray byte array), and return the current
    * ("pre-incremented") LSN to the client.  If successful, the LSN is
    * incremented internally.
@@ -109,10 +292,24 @@ public abstract class LogMgrBase {
    * write to disk UNLESS the current log page/block doesn't have sufficient
    * room for the incoming record.  In THAT case only, the LogRecord MUST write
    * the current log page/block to disk and append the record to a new page.
+   * (Independently of append(), a positive
+   * DBConfiguration.logFlushIntervalMillis() enables a background task that
+   * writes the current, possibly partial, page: see flush().)
    *
    * Implication: to guarantee that a log record is immediately written to
    * disk, clients must invoke flush() after the append().
    *
+   * Log tail pages: the log manager MUST access the DBConfiguration singleton
+   * to determine logTailPages().  If the value is greater than 1, the log
+   * manager maintains a ring of that many pages.  When the current page
+   * doesn't have sufficient room for the incoming record, append() hands the
+   * full page to a dedicated flusher thread and continues with the next page
+   * of the ring, without writing to disk itself (and without holding the log
+   * latch during a disk write).  append() blocks only if every page in the
+   * ring is waiting to be written.  Pages are written in LSN order, and
+   * flush(lsn) waits until durableLSN() is at least lsn, handing the page
+   * containing that record to the flusher if necessary.
+   *
    * Suggested implementation (non-despositive, as long as the other API
    * semantics (including the Iterator) are provided) follows. Log records are
    * written from "right to left" order in a given Page (i.e., at decreasing
@@ -129,4 +326,44 @@ public abstract class LogMgrBase {
    * @see #flush
    */
   public abstract int append(byte[] logrec);
+
+  /** Appends a batch of log records atomically, with a single acquisition of
+   * the log latch: the records are assigned consecutive LSNs, in list order,
+   * and no record appended by another thread can be interleaved with them.
+   * With respect to writing to disk, the method has the same semantics as
+   * invoking append() for each record (the batch may therefore span log
+   * pages).
+   *
+   * @param logrecs the log records, must be non-empty, and each record must
+   * satisfy the append() pre-conditions.
+   * @return the LSN of the first record in the batch: the LSN of the i'th
+   * record is this value plus i, and the LSN of the last record is this value
+   * plus logrecs.size() - 1.
+   * @throws IllegalArgumentException if the pre-conditions are violated, in
+   * which case no record is appended.
+   * @see #append
+   */
+  public abstract int appendAll(List<byte[]> logrecs);
+
+  /** Returns the number of log blocks read ahead by log iterators.
+   *
+   * @return the number of read-aheads since the log manager was created
+   * @see #iterator()
+   */
+  public abstract long prefetchReads();
+
+  /** Returns the number of times that a log iterator moved to a block that
+   * had already been read ahead.
+   *
+   * @return the number of read-ahead hits since the log manager was created
+   */
+  public abstract long prefetchHits();
+
+  /** Returns the number of log blocks that were read ahead but never visited
+   * (e.g., because the iterator was abandoned).
+   *
+   * @return the number of wasted read-aheads since the log manager was
+   * created
+   */
+  public abstract long prefetchWasted();
 }
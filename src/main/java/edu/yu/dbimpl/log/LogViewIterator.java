@@ -0,0 +1,45 @@
+package edu.yu.dbimpl.log;
+
+/** Specifies the API of the iterator returned by LogMgrBase.viewIterator: a
+ * reverse order Iterator over read-only views of log records that can also
+ * be repositioned at an earlier log record.
+ *
+ * Students MAY NOT modify this interface in any way.
+ *
+ * seek() lets a client that follows a chain of log records (e.g., rollback,
+ * which follows a transaction's "previous LSN" chain) use a single iterator
+ * for the whole chain, rather than creating (and positioning) a new iterator
+ * per record.
+ *
+ * @see LogMgrBase#viewIterator
+ */
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+
+public interface LogViewIterator extends Iterator<ByteBuffer> {
+
+  /** Repositions the iterator such that next() returns the log record having
+   * the specified LSN.  Because the iterator only moves backwards, the LSN
+   * must be less than that of the record most recently returned by next()
+   * (or, if next() hasn't been invoked, at most the LSN supplied to
+   * viewIterator).
+   *
+   * The search starts from the iterator's current block, NOT from the end of
+   * the log: if the record is in the current block, no block is read.
+   * Otherwise the iterator compares the first-LSN headers (see
+   * LogMgrBase.iterator(int)) of blocks at exponentially increasing
+   * distances before the current block, and then binary-searches the range
+   * so found, reading O(log d) block headers where d is the number of blocks
+   * between the current position and the record.  The current segment's
+   * buffer (and, with DBConfiguration.isLogMmapReads(), its mapping) is
+   * reused; if the record is in an earlier segment, that segment is selected
+   * via the in-memory segment table and its buffer obtained once.  Any view
+   * previously returned by next() becomes invalid.
+   *
+   * @param lsn the LSN of the record that next() must return
+   * @throws IllegalArgumentException if the lsn doesn't meet the
+   * pre-conditions, or has been truncated.
+   */
+  void seek(int lsn);
+}
@@ -1,6 +1,7 @@
 package edu.yu.dbimpl.record;
 
 import edu.yu.dbimpl.file.*;
+import edu.yu.dbimpl.query.DatumBase;
 import edu.yu.dbimpl.tx.TxBase;
 
 /** Specifies the public API for the RecordPage implementation by requiring all
@@ -156,6 +157,25 @@ public abstract class RecordPageBase {
    */
   public abstract void setDouble(int slot, String fldname, double val);
   
+  /** Stores several field values of the specified slot.  Semantically
+   * equivalent to invoking the corresponding setX method for each field,
+   * except that the values are written with a single TxBase.setVals
+   * invocation so that their log records are appended as one batch.  The
+   * implementation converts each DatumBase to the field's java.sql.Types
+   * code and the corresponding value (see TxBase.setVals), so that DatumBase
+   * doesn't cross into the tx layer.
+   *
+   * @param slot specifies location storing the values, must be non-negative.
+   * @param fldnames the field names, each must be defined on the page's
+   * layout, must be non-empty
+   * @param vals the new values: vals[i] is stored in field fldnames[i], so
+   * must have the same length as fldnames
+   * @throws IllegalArgumentException if pre-conditions are violated, or if a
+   * value's type doesn't correspond to its field's type.
+   * @see TableScanBase#setVals
+   */
+  public abstract void setVals(int slot, String[] fldnames, DatumBase[] vals);
+
   /** Deletes the specified slot by setting its "in-use" flag to "not in use".
    *
    * @param slot uniquely identifies the record slot.
@@ -23,6 +23,12 @@ import edu.yu.dbimpl.tx.TxBase;
  *
  * Design note: a given instance of a TableScan need not be thread-safe.
  *
+ * Performance note: because a TableScan visits the blocks of its file in
+ * order, the buffer manager may service its pins by reading a run of upcoming
+ * blocks into the buffer pool with a single FileMgrBase.readBlocks invocation
+ * rather than one read per block.  A TableScan MUST NOT bypass the buffer
+ * manager to do so.
+ *
  * Design note: All get/set methods MUST throw an IllegalStateException (NOT
  * IAE) if the TableScan is not positioned on an "in-use" RecordPage slot.
  *
@@ -58,5 +64,23 @@ public abstract class TableScanBase implements UpdateScan {
    * @see java.io.File#getName
    */
   public abstract String getTableFileName();
+
+  /** Modifies several field values of the current record: the row-level
+   * update path.  Semantically equivalent to invoking setVal() for each
+   * field, except that the implementation delegates to a single
+   * RecordPageBase.setVals invocation, so that the update's log records are
+   * appended to the log as one batch.
+   *
+   * @param fldnames the field names, each must be part of the schema, must
+   * be non-empty
+   * @param vals the new values: vals[i] is stored in field fldnames[i], so
+   * must have the same length as fldnames
+   * @throws IllegalArgumentException if the pre-conditions are violated, or
+   * if a value's type is incorrect for its field's type
+   * @throws IllegalStateException if the scan isn't positioned on an
+   * "in-use" record slot
+   * @see RecordPageBase#setVals
+   */
+  public abstract void setVals(String[] fldnames, DatumBase[] vals);
   
 } // class
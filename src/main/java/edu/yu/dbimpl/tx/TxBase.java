@@ -89,14 +89,52 @@ public interface TxBase {
    * their log records); then write and flush a commit record to the log; then
    * release all locks, and unpin any pinned buffers.
    *
+   * If the tx commits asynchronously, commit() doesn't wait for the commit
+   * record to be on disk before releasing locks and returning: the log
+   * manager makes the record durable within DBConfiguration
+   * logFlushIntervalMillis().  A crash before then rolls the tx back in its
+   * entirety.  Clients that need to know that the commit is durable invoke
+   * LogMgrBase.flush(commitLSN()).
+   *
+   * Limitation: asynchronous commit does NOT make commit() non-blocking.
+   * Because recovery has no redo pass, the tx's modified buffers must still
+   * be flushed before the commit record is appended, and flushing them first
+   * flushes the log up to their latest log record (write-ahead logging).  An
+   * asynchronous commit therefore still waits for a log flush and for its
+   * data page writes; it only avoids waiting for the flush of the commit
+   * record itself.
+   *
    * @throws IllegalStateException if tx isn't in the ACTIVE state.
    */
   public void commit();
+
+  /** Specifies whether this tx commits asynchronously, overriding the
+   * default supplied by DBConfiguration.isAsyncCommit().
+   *
+   * @param async true iff the tx should commit asynchronously
+   * @throws IllegalStateException if tx isn't in the ACTIVE state, or if
+   * async is true and DBConfiguration.logFlushIntervalMillis() is 0 (i.e.,
+   * nothing would bound how long the commit record remains in main-memory).
+   * @see #commit
+   */
+  public void setAsyncCommit(boolean async);
+
+  /** Returns the LSN of the tx's commit record.
+   *
+   * @return the LSN of the commit record
+   * @throws IllegalStateException if tx isn't in the COMMITTED state.
+   * @see #commit
+   */
+  public int commitLSN();
    
   /** Roll the current transaction back: first undoes any modified values; then
    * flushes those buffers; then write and flush a rollback record to the log;
    * then releases all locks, and unpins any pinned buffers.
    *
+   * Rollback only visits the tx's own log records (see
+   * RecoveryMgrBase.rollback), so its cost doesn't grow with the number of
+   * log records written by other transactions.
+   *
    * @throws IllegalStateException if tx isn't in the ACTIVE state.
    */
   public void rollback();
@@ -273,7 +311,37 @@ public interface TxBase {
   public void
     setBytes(BlockIdBase blk, int offset, byte[] val, boolean okToLog);
 
-  
+  /** Stores several values in the specified block: semantically equivalent
+   * to invoking the corresponding setX method for each value, except that
+   * (when okToLog is true) all of the "update" log records are appended to
+   * the log as a single batch (see RecoveryMgrBase.setVals), acquiring the
+   * log latch once rather than once per value.  Intended for row-level
+   * updates that modify several fields of a record.
+   *
+   * The offsets and values are supplied as parallel arrays (rather than,
+   * e.g., a Map) so that the call doesn't box each offset.  Each value's type
+   * is specified by its java.sql.Types code: an INTEGER, BOOLEAN, DOUBLE,
+   * VARCHAR, or VARBINARY value is supplied as an Integer, Boolean, Double,
+   * String, or byte[] respectively.  (The types are those of the setX
+   * methods, so that the tx layer doesn't depend on the query layer.)
+   *
+   * @param blk a reference to the disk block
+   * @param offsets the byte offsets within the block, must be non-empty
+   * @param types the java.sql.Types code of each value, must have the same
+   * length as offsets
+   * @param vals the values to be stored: vals[i] is stored at offsets[i], so
+   * must have the same length as offsets, and must be an instance of the
+   * class that corresponds to types[i]
+   * @param okToLog true iff the client wants the operations to be logged,
+   * false otherwise.
+   * @throws IllegalArgumentException if the arrays don't meet the
+   * pre-conditions.
+   * @throws IllegalStateException if specified block isn't currently pinned
+   * by this tx
+   */
+  public void setVals(BlockIdBase blk, int[] offsets, int[] types,
+                      Object[] vals, boolean okToLog);
+
   /** Returns the number of blocks in the specified file.
    *
    * Note: be sure to provide transactional semantics for this method.
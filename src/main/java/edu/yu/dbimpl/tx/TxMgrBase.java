@@ -48,6 +48,8 @@ public abstract class TxMgrBase {
    * @param maxWaitTimeInMillis maximum amount of time that a tx will wait to
    * acquire a lock (whether slock or xlock) before the database throws a
    * LockAbortException.  Must be greater than 0, and is specified in ms.
+   * @throws IllegalStateException if DBConfiguration.isAsyncCommit() is true
+   * but DBConfiguration.logFlushIntervalMillis() is 0.
    * @see edu.yu.dbimpl.tx.concurrency.ConcurrencyMgrBase#sLock
    * @see edu.yu.dbimpl.tx.concurrency.ConcurrencyMgrBase#xLock
    */
@@ -9,6 +9,7 @@ package edu.yu.dbimpl.tx.recovery;
  * @author Avraham Leff
  */
 
+import edu.yu.dbimpl.file.PageBase;
 import edu.yu.dbimpl.tx.TxBase;
 
 interface LogRecord {
@@ -24,6 +25,16 @@ interface LogRecord {
    */
   int txNumber();
 
+  /** Returns the LSN of the previous log record written by the same
+   * transaction, or -1 if this is the transaction's first ("start") log
+   * record.  Chaining a transaction's log records allows rollback to visit
+   * only that transaction's records.
+   *
+   * @return the LSN of the transaction's previous log record
+   * @see edu.yu.dbimpl.log.LogMgrBase#iterator(int)
+   */
+  int prevLSN();
+
   /** Undoes the operation encoded by this log record.  The "undo" semantics
    * may not apply to all LogRecord types, and they are free to provide a no-op
    * implementation.
@@ -31,4 +42,15 @@ interface LogRecord {
    * @param tx the transaction that is performing the undo operation.
    */
   void undo(TxBase tx);
+
+  /** Undoes the operation encoded by this log record by writing the old
+   * value directly into the specified page, without acquiring locks or
+   * logging.  Used by parallel recovery, whose worker threads can't share
+   * the recovering transaction.  As with undo(TxBase), record types to which
+   * "undo" doesn't apply provide a no-op implementation.
+   *
+   * @param page the contents of a buffer pinned to this record's block
+   * @see RecoveryMgrBase#recover
+   */
+  void undo(PageBase page);
 }
@@ -9,6 +9,51 @@ package edu.yu.dbimpl.tx.recovery;
  *
  * In this design, every transaction is associated with its own recovery
  * manager.
+ *
+ * Log record format: log-bound throughput depends on the number of bytes
+ * written per update, so the setX log records MUST use a compact encoding.
+ * Tx numbers, block numbers, offsets, and LSNs are written with VarInt (int
+ * field values are first mapped with VarInt.zigZag).  File names are not
+ * repeated per record: they are replaced by a small integer id from a
+ * file-name dictionary.
+ *
+ * The dictionary is DBMS-wide state shared by every RecoveryMgr instance
+ * (there is one RecoveryMgr per transaction), so the implementation owns it
+ * as a single static instance.  Looking up an already-introduced name needs
+ * no lock (e.g., a ConcurrentHashMap), but introducing a name is synchronized
+ * on the dictionary: while holding the lock, the introducing thread assigns
+ * the id and appends a dictionary record (name and id) together with the
+ * update record that uses it in a single LogMgrBase.appendAll invocation.  A
+ * name's dictionary record therefore always precedes every log record that
+ * uses its id, and no other thread can use the id before it is introduced.
+ *
+ * Dictionary records are tied to checkpoints rather than to log segments
+ * (segmentation is invisible to the RecoveryMgr).  recover() appends, in the
+ * same appendAll invocation as its quiescent checkpoint record, a dictionary
+ * record listing every name in the dictionary.  The dictionary record MUST
+ * immediately FOLLOW the checkpoint record in that invocation (so that its
+ * LSN is the checkpoint's LSN + 1): truncate() and forwardViewIterator()
+ * are both given the checkpoint's LSN, so a dictionary record that preceded
+ * the checkpoint would be discarded, or skipped, by recovery.  A name that
+ * is used after the checkpoint without being listed there is introduced as
+ * described above.  Because the checkpoint is the only truncation point, and
+ * truncate() retains the records from the checkpoint onwards, every retained
+ * record's ids are defined by retained dictionary records.  Rollback decodes
+ * ids with the in-memory dictionary.  Because the dictionary is static, it
+ * outlives a DBMS instance: recover() MUST therefore clear it before
+ * rebuilding it, so that a database instantiated later in the same JVM
+ * doesn't inherit the name to id mappings of its predecessor.  recover() then
+ * rebuilds the dictionary from the dictionary records it reads, scanning
+ * forward from the last checkpoint, before decoding the records that use
+ * them.
+ *
+ * When the old value of a setString or setBytes has the same length as the
+ * new value, the record may store only the length of the common prefix and
+ * suffix and the differing old bytes; undoing such a record is correct
+ * whether the page currently holds the old or the new value.  Values of
+ * different lengths are logged in full.
+ *
+ * @see VarInt
  */
 
 import edu.yu.dbimpl.log.LogMgrBase;
@@ -31,16 +76,105 @@ public abstract class RecoveryMgrBase {
   /** Write a commit record to the log, and flushes it to disk, and do whatever
    * concommitant processing is required by your implementation.
    *
+   * Note: the flush is a LogMgrBase.flush(lsn) of the commit record, which
+   * (with group commit enabled) may share a single disk write with other
+   * concurrently committing transactions.
+   *
+   * If the transaction commits asynchronously (see TxBase.setAsyncCommit),
+   * the commit record is appended but NOT flushed: the log manager's
+   * background task makes it durable.  The transaction's modified buffers
+   * MUST still be flushed before the commit record is appended, so that a
+   * crash either loses the commit record (and recovery undoes the
+   * transaction) or doesn't (and the transaction's changes are on disk).
+   * Since BufferMgrBase.flushAll first flushes the log up to the buffers'
+   * latest log record, an asynchronous commit still blocks on that log flush
+   * and on the page writes: it only saves the flush of the commit record.
+   * Deferring the page writes as well would require a redo pass, which this
+   * design doesn't have.
+   *
+   * @see edu.yu.dbimpl.log.LogMgrBase#flush
    */
   public abstract void commit();
 
+  /** Returns the LSN of the transaction's commit record, or -1 if commit()
+   * hasn't been invoked.
+   *
+   * @return the LSN of the commit record
+   */
+  public abstract int commitLSN();
+
   /** Write a rollback record to the log and flush it to disk, and do whatever
    * concommitant processing is required by your implementation.
+   *
+   * Every log record written on behalf of a transaction stores the LSN of
+   * that transaction's previous log record.  Rollback MUST follow this chain
+   * backwards from the transaction's latest log record with a single
+   * iterator: it creates LogMgrBase.viewIterator(lsn) for the latest record,
+   * and then moves to each previous record with LogViewIterator.seek, so
+   * that it never visits another transaction's records.  Each record is
+   * decoded from the returned view (see VarInt.read(ByteBuffer)) without
+   * being copied.  Records in the same block cost no block reads; otherwise
+   * a seek reads O(log d) block headers, where d is the distance in blocks
+   * to the previous record.  Rollback therefore costs O(k + the sum of
+   * log d) block reads for a transaction with k log records (at most
+   * O(k log(n/k)) for a log of n blocks), rather than one search of the
+   * whole log per record.
+   *
+   * @see edu.yu.dbimpl.log.LogMgrBase#viewIterator
+   * @see edu.yu.dbimpl.log.LogViewIterator#seek
    */
   public abstract void rollback();
 
   /** Recover uncompleted transactions from the log and then write a quiescent
    * checkpoint record to the log and flush it.
+   *
+   * Parallel recovery: because committed transactions force their buffers
+   * to disk, recovery only needs to undo the log records of uncompleted
+   * transactions (there is no redo pass).  The implementation reads the log
+   * forward from the last checkpoint to determine the uncompleted
+   * transactions and their update records, and partitions those records by
+   * block.  Since every checkpoint is followed by truncate(), the last
+   * checkpoint is at LogMgrBase.truncationLSN(), and the scan is
+   * LogMgrBase.forwardViewIterator(truncationLSN()) (which, if the log was
+   * never truncated, starts with the first log record).  A crash between a
+   * checkpoint and its truncate() only makes the scan start at an earlier
+   * checkpoint, which is still correct.  If the log is empty
+   * (LogMgrBase.durableLSN() is -1), there is nothing to scan or undo, and
+   * recover() only writes the checkpoint.  The implementation MUST access the
+   * DBConfiguration singleton to determine recoveryThreads(): the partitions
+   * are undone in parallel on a ForkJoinPool with that parallelism, each
+   * partition undoing its block's records in decreasing LSN order.  Records
+   * of different blocks are independent, so the result is identical to a
+   * single-threaded reverse pass.
+   *
+   * The recovering TxBase isn't thread-safe, so the partition tasks MUST NOT
+   * use it.  Instead, undo is applied directly to pinned buffers, so every
+   * update record type MUST be able to undo its operation given only the
+   * page holding its block (without a TxBase, locks, or logging); with the
+   * suggested LogRecord design, that is LogRecord.undo(PageBase).  Each task
+   * pins its block through the (thread-safe) buffer manager, undoes its
+   * records on the buffer's page, invokes setModified() with the recovering
+   * tx's number and a negative LSN (undo isn't logged), and unpins the
+   * buffer.  No locks are needed since recover() runs while the
+   * DBMS is quiescent, and no page is shared by two tasks since each block
+   * belongs to exactly one partition.  The buffer manager's per-transaction
+   * set of modified buffers must therefore tolerate concurrent setModified()
+   * invocations.  At most min(recoveryThreads(), BufferMgrBase.available())
+   * tasks run at once, so that a task's pin never has to wait.  Once every
+   * task has completed, the recovering thread flushes the modified buffers
+   * (BufferMgrBase.flushAll) before the checkpoint record is written.
+   *
+   * The forward scan decodes each record directly from the view returned by
+   * forwardViewIterator (see VarInt.read(ByteBuffer)) instead of from a
+   * byte[] copy; only the update records of uncompleted transactions, which
+   * must outlive the scan, are copied into their partitions.
+   *
+   * Having flushed the checkpoint record (and the dictionary record appended
+   * with it, see the class Javadoc), the implementation invokes
+   * LogMgrBase.truncate() with the checkpoint record's LSN, since no earlier
+   * log record is needed to recover or roll back a transaction.
+   *
+   * @see edu.yu.dbimpl.log.LogMgrBase#truncate
    */
   public abstract void recover();
 
@@ -88,4 +222,22 @@ public abstract class RecoveryMgrBase {
    * @return the LSN after the record has been written to the log
    */
   public abstract int setBytes(BufferBase buff, int offset, byte[] newval);
+
+  /** Write one setX record per specified value to the log, appending them
+   * with a single LogMgrBase.appendAll invocation, and return the lsn of the
+   * last record.  The record type for each value is determined by its
+   * java.sql.Types code, with the value encoding specified by TxBase.setVals.
+   *
+   * @param buff the buffer containing the page
+   * @param offsets the offsets of the values in the page, must be non-empty
+   * @param types the java.sql.Types code of each value, must have the same
+   * length as offsets
+   * @param newvals the values to be written: newvals[i] is written at
+   * offsets[i], so must have the same length as offsets
+   * @return the LSN of the last record written to the log
+   * @see edu.yu.dbimpl.log.LogMgrBase#appendAll
+   * @see edu.yu.dbimpl.tx.TxBase#setVals
+   */
+  public abstract int
+    setVals(BufferBase buff, int[] offsets, int[] types, Object[] newvals);
 }
@@ -0,0 +1,179 @@
+package edu.yu.dbimpl.tx.recovery;
+
+/** Static helpers for the variable-length ("varint") integer encoding used by
+ * the compact log record format (see RecoveryMgrBase).  An int is treated as
+ * an unsigned 32-bit value and written seven bits at a time,
+ * least-significant group first, with the high bit of each byte set iff more
+ * bytes follow.  Small values (tx numbers, block numbers, offsets) therefore
+ * take one or two bytes instead of Integer.BYTES.  Signed values (e.g., an int
+ * field's old value) should first be mapped with zigZag() so that values of
+ * small magnitude also encode compactly.
+ */
+
+import java.nio.ByteBuffer;
+
+public final class VarInt {
+
+  /** The maximum number of bytes needed to encode an int.
+   */
+  public static final int MAX_BYTES = 5;
+
+  /** Returns the number of bytes needed to encode the specified value.
+   *
+   * @param value the value, treated as unsigned
+   * @return the encoded size, between 1 and MAX_BYTES
+   */
+  public static int size(final int value) {
+    int n = 1;
+    int v = value >>> 7;
+    while (v != 0) {
+      n++;
+      v >>>= 7;
+    }
+
+    return n;
+  }
+
+  /** Encodes the specified value into the array at the specified offset.
+   *
+   * @param b the destination array
+   * @param offset the position at which the first byte is written
+   * @param value the value, treated as unsigned
+   * @return the offset following the last byte written
+   * @throws IllegalArgumentException if the array doesn't have room for the
+   * encoded value
+   */
+  public static int write(final byte[] b, final int offset, final int value) {
+    if (b == null || offset < 0 || offset + size(value) > b.length) {
+      throw new IllegalArgumentException
+        ("No room to encode "+value+" at offset "+offset);
+    }
+
+    int pos = offset;
+    int v = value;
+    while ((v & ~0x7F) != 0) {
+      b[pos++] = (byte) ((v & 0x7F) | 0x80);
+      v >>>= 7;
+    }
+    b[pos++] = (byte) v;
+    return pos;
+  }
+
+  /** Decodes the value that was encoded at the specified offset.  Only the
+   * canonical (minimal-length) encoding produced by write() is accepted, so
+   * the number of bytes consumed is exactly size() of the returned value:
+   * clients that need the offset of the following field add that size.
+   *
+   * @param b the source array
+   * @param offset the position of the encoded value's first byte
+   * @return the decoded value
+   * @throws IllegalArgumentException if the bytes at the offset aren't a
+   * canonical encoding (e.g., an overlong encoding such as 0x80 0x00, or a
+   * fifth byte with bits set beyond the 32 bits of an int)
+   */
+  public static int read(final byte[] b, final int offset) {
+    if (b == null || offset < 0) {
+      throw new IllegalArgumentException("Invalid offset: "+offset);
+    }
+
+    int value = 0;
+    for (int i = 0; i < MAX_BYTES; i++) {
+      if (offset + i >= b.length) {
+        throw new IllegalArgumentException
+          ("Truncated varint at offset "+offset);
+      }
+      final int next = b[offset + i];
+      value |= (next & 0x7F) << (7 * i);
+      if ((next & 0x80) == 0) {
+        if (!isCanonicalLastByte(i, next)) {
+          throw new IllegalArgumentException
+            ("Non-canonical varint at offset "+offset);
+        }
+        return value;
+      }
+    }
+
+    throw new IllegalArgumentException("Malformed varint at offset "+offset);
+  }
+
+  /** Decodes the value that is encoded at the buffer's position, advancing
+   * the position past the encoded bytes.  Enables log records to be decoded
+   * from a read-only view without copying them into a byte[].  As with
+   * read(byte[], int), only canonical encodings are accepted.
+   *
+   * @param bb the source buffer
+   * @return the decoded value
+   * @throws IllegalArgumentException if the bytes at the buffer's position
+   * aren't a canonical encoding, in which case the position is unchanged
+   */
+  public static int read(final ByteBuffer bb) {
+    if (bb == null) {
+      throw new IllegalArgumentException("Null buffer");
+    }
+
+    final int start = bb.position();
+    int value = 0;
+    for (int i = 0; i < MAX_BYTES; i++) {
+      if (!bb.hasRemaining()) {
+        bb.position(start);
+        throw new IllegalArgumentException
+          ("Truncated varint at position "+start);
+      }
+      final int next = bb.get();
+      value |= (next & 0x7F) << (7 * i);
+      if ((next & 0x80) == 0) {
+        if (!isCanonicalLastByte(i, next)) {
+          bb.position(start);
+          throw new IllegalArgumentException
+            ("Non-canonical varint at position "+start);
+        }
+        return value;
+      }
+    }
+
+    bb.position(start);
+    throw new IllegalArgumentException("Malformed varint at position "+start);
+  }
+
+  /** Maps a signed int to an unsigned int such that values of small
+   * magnitude (positive or negative) map to small unsigned values.
+   *
+   * @param n any int
+   * @return the zig-zag mapping of n
+   * @see #unZigZag
+   */
+  public static int zigZag(final int n) {
+    return (n << 1) ^ (n >> 31);
+  }
+
+  /** Inverts zigZag().
+   *
+   * @param n a value returned by zigZag()
+   * @return the original signed int
+   * @see #zigZag
+   */
+  public static int unZigZag(final int n) {
+    return (n >>> 1) ^ -(n & 1);
+  }
+
+  /** Returns true iff the final byte of an encoding is consistent with the
+   * encoding being minimal-length and fitting in 32 bits.
+   *
+   * @param i the index of the final byte within the encoding
+   * @param last the final byte (whose continuation bit is clear)
+   */
+  private static boolean isCanonicalLastByte(final int i, final int last) {
+    if (i > 0 && last == 0) {
+      return false;             // overlong: a trailing zero group
+    }
+    if (i == MAX_BYTES - 1 && (last & 0xF0) != 0) {
+      return false;             // bits beyond the 32 bits of an int
+    }
+
+    return true;
+  }
+
+  private VarInt() {
+    // static helpers only
+  }
+} // class